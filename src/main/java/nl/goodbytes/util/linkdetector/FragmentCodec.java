@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.goodbytes.util.linkdetector;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes the result of {@link LinkDetector#parse(String)} into a compact binary form, and restores it again.
+ *
+ * The encoded form is intended to be stored alongside the text that it was derived from, so that the fragments of
+ * that text can be reconstructed without having to parse the text again.
+ *
+ * The encoded form consists of:
+ * <ol>
+ *     <li>a single byte that identifies the version of the format (currently {@value #VERSION});</li>
+ *     <li>the length of the original text;</li>
+ *     <li>the number of links in the text;</li>
+ *     <li>for each link, the distance between the end of the previous link (or the start of the text) and the start
+ *     of the link, followed by the length of the link.</li>
+ * </ol>
+ * All numbers are written as unsigned variable-length integers (seven bits per byte, least significant group first).
+ * Fragments of regular text are not stored: they are implied by the gaps between links.
+ *
+ * This class is thread-safe.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class FragmentCodec
+{
+    /**
+     * The version of the encoded format that is produced by this implementation.
+     */
+    public static final byte VERSION = 1;
+
+    /**
+     * Receives the fragments that are decoded by {@link #decode(byte[], Callback)}.
+     *
+     * The 'start' and 'end' values are compatible with those of {@link Fragment#startIndex()} and
+     * {@link Fragment#endIndex()}.
+     */
+    public interface Callback
+    {
+        /**
+         * Invoked for a fragment that represents text.
+         *
+         * @param start The index (0-based, inclusive) in the original text where the fragment begins.
+         * @param end The index (0-based, exclusive) in the original text where the fragment ends.
+         */
+        void onText(int start, int end);
+
+        /**
+         * Invoked for a fragment that represents a link.
+         *
+         * @param start The index (0-based, inclusive) in the original text where the fragment begins.
+         * @param end The index (0-based, exclusive) in the original text where the fragment ends.
+         */
+        void onLink(int start, int end);
+    }
+
+    /**
+     * Parses the provided input text, and encodes the result.
+     *
+     * @param input The text to parse.
+     * @return The encoded fragments of the text.
+     */
+    public static byte[] encode(final String input)
+    {
+        if (input == null) {
+            throw new IllegalArgumentException("Argument 'input' cannot be null (but was).");
+        }
+        return encode(LinkDetector.parse(input));
+    }
+
+    /**
+     * Encodes a collection of fragments, as obtained from {@link LinkDetector#parse(String)}.
+     *
+     * The fragments are expected to be ordered, and to combine into the entire text that they were derived from.
+     *
+     * @param fragments The fragments to encode.
+     * @return The encoded fragments.
+     */
+    public static byte[] encode(final List<Fragment> fragments)
+    {
+        if (fragments == null) {
+            throw new IllegalArgumentException("Argument 'fragments' cannot be null (but was).");
+        }
+
+        int length = 0;
+        int linkCount = 0;
+        for (final Fragment fragment : fragments)
+        {
+            if (fragment.startIndex() != length) {
+                throw new IllegalArgumentException("Argument 'fragments' must contain consecutive fragments (but did not). Expected a fragment starting at " + length + ", but found one starting at " + fragment.startIndex());
+            }
+            length = fragment.endIndex();
+            if (fragment.isLink()) {
+                linkCount++;
+            }
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(3 + linkCount * 3);
+        out.write(VERSION);
+        writeVarInt(out, length);
+        writeVarInt(out, linkCount);
+
+        int needle = 0;
+        for (final Fragment fragment : fragments)
+        {
+            if (fragment.isLink()) {
+                writeVarInt(out, fragment.startIndex() - needle);
+                writeVarInt(out, fragment.endIndex() - fragment.startIndex());
+                needle = fragment.endIndex();
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Restores the fragments of a text from its encoded form.
+     *
+     * The result is equal to that of {@link LinkDetector#parse(String)} when invoked with the same input, provided
+     * that the encoded form was generated from that input.
+     *
+     * @param encoded The encoded fragments, as obtained from {@link #encode(List)}.
+     * @param input The original text that the fragments were derived from.
+     * @return A collection of fragments.
+     */
+    public static List<Fragment> decode(final byte[] encoded, final String input)
+    {
+        if (input == null) {
+            throw new IllegalArgumentException("Argument 'input' cannot be null (but was).");
+        }
+        final int length = length(encoded);
+        if (length != input.length()) {
+            throw new IllegalArgumentException("Argument 'encoded' must be derived from argument 'input' (but was not). Encoded length " + length + ", input length " + input.length());
+        }
+
+        final List<Fragment> result = new ArrayList<>();
+        decode(encoded, new Callback() {
+            @Override
+            public void onText(final int start, final int end) {
+                result.add( Fragment.createText(input, start, end) );
+            }
+
+            @Override
+            public void onLink(final int start, final int end) {
+                result.add( Fragment.createLink(input, start, end) );
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Restores the fragments of a text from its encoded form, passing each fragment to the provided callback, in
+     * order of appearance in the original text.
+     *
+     * @param encoded The encoded fragments, as obtained from {@link #encode(List)}.
+     * @param callback The recipient of the decoded fragments.
+     */
+    public static void decode(final byte[] encoded, final Callback callback)
+    {
+        if (callback == null) {
+            throw new IllegalArgumentException("Argument 'callback' cannot be null (but was).");
+        }
+
+        checkVersion(encoded);
+
+        final int[] position = { 1 };
+        final int length = readVarInt(encoded, position);
+        final int linkCount = readVarInt(encoded, position);
+
+        int needle = 0;
+        for (int i = 0; i < linkCount; i++)
+        {
+            final int start = needle + readVarInt(encoded, position);
+            final int end = start + readVarInt(encoded, position);
+            if (start < needle || end < start || end > length) {
+                throw new IllegalArgumentException("Argument 'encoded' contains a link that exceeds the length of the text (but should not). start " + start + ", end " + end + ", length " + length);
+            }
+
+            // Text leading up to the link is regular text.
+            if (start > needle) {
+                callback.onText(needle, start);
+            }
+            callback.onLink(start, end);
+            needle = end;
+        }
+
+        if (position[0] != encoded.length) {
+            throw new IllegalArgumentException("Argument 'encoded' contains " + (encoded.length - position[0]) + " unexpected trailing byte(s) (but should not).");
+        }
+
+        // Text after the last link up to the end of the input is regular text.
+        if (needle < length) {
+            callback.onText(needle, length);
+        }
+    }
+
+    /**
+     * Returns the length of the original text, as recorded in its encoded form.
+     *
+     * @param encoded The encoded fragments, as obtained from {@link #encode(List)}.
+     * @return The length of the text that the fragments were derived from.
+     */
+    public static int length(final byte[] encoded)
+    {
+        checkVersion(encoded);
+        return readVarInt(encoded, new int[] { 1 });
+    }
+
+    private static void checkVersion(final byte[] encoded)
+    {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Argument 'encoded' cannot be null (but was).");
+        }
+        if (encoded.length == 0) {
+            throw new IllegalArgumentException("Argument 'encoded' cannot be empty (but was).");
+        }
+        if (encoded[0] != VERSION) {
+            throw new IllegalArgumentException("Argument 'encoded' uses an unsupported format version " + encoded[0] + " (supported version: " + VERSION + ").");
+        }
+    }
+
+    private static void writeVarInt(final ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads a variable-length integer from the encoded data, starting at the position that is held by the first
+     * element of the provided array. Upon return, that element is updated to point at the first unread byte.
+     */
+    private static int readVarInt(final byte[] encoded, final int[] position)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            if (position[0] >= encoded.length) {
+                throw new IllegalArgumentException("Argument 'encoded' is truncated (but should not be).");
+            }
+            final byte b = encoded[position[0]++];
+            if (shift == 28 && (b & 0xFF) > 0x0F) {
+                // The fifth byte holds the four most significant bits. Anything beyond those does not fit an int.
+                break;
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    break;
+                }
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Argument 'encoded' contains a malformed number (but should not).");
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.goodbytes.util.linkdetector;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+
+/**
+ * A command-line utility that extracts all links from all files in a directory tree.
+ *
+ * Files are read as UTF-8 (malformed input is replaced, rather than rejected) and are processed in parallel by a
+ * bounded pool of worker threads. Each worker reuses its read and decode buffers between files. For every link that is
+ * found, one line of JSON is written to the output, containing the path of the file, the (0-based) character offset of
+ * the link in the file, and the link itself. When all files have been processed, a throughput summary is written to
+ * the standard error stream.
+ *
+ * Files are scanned in windows of {@value #WINDOW_SIZE} characters, which bounds the amount of memory used per worker
+ * thread, regardless of the size of the files. A window is scanned up to the last character that cannot be part of a
+ * link, and the remainder is carried over to the next window. When the last {@value #MAX_RUN_LENGTH} characters of a
+ * window all can be part of a link (as is the case in, for example, long runs of base64 data), that run is split at an
+ * arbitrary point instead. A link that spans that point is then reported truncated, or is missed, and a link that
+ * starts after it may be reported even though it is part of a longer link.
+ *
+ * The process exits with status 0 when all files were processed, 1 when one or more files could not be processed, and 2
+ * when the arguments are invalid.
+ *
+ * Usage:
+ * <pre>
+ * java -jar linkdetector.jar &lt;directory&gt; [-o &lt;output file&gt;] [-t &lt;threads&gt;]
+ * </pre>
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LinkExtractor
+{
+    /**
+     * The number of bytes that are read from a file at once.
+     */
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of characters that are scanned for links at once.
+     */
+    static final int WINDOW_SIZE = 256 * 1024;
+
+    /**
+     * The number of characters at the end of a window that are searched for a position where the window can safely
+     * be split. See the class documentation for the effect of not finding such a position.
+     */
+    static final int MAX_RUN_LENGTH = 32 * 1024;
+
+    /**
+     * The number of characters of records that are collected before they are written to the output.
+     */
+    static final int MAX_RECORDS_SIZE = 1024 * 1024;
+
+    /**
+     * Counters that describe the work performed by {@link #extract(Path, Writer, int)}.
+     */
+    public static class Summary
+    {
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong links = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+
+        /**
+         * @return the number of files that were processed.
+         */
+        public long files()
+        {
+            return files.get();
+        }
+
+        /**
+         * @return the number of bytes that were read.
+         */
+        public long bytes()
+        {
+            return bytes.get();
+        }
+
+        /**
+         * @return the number of links that were found.
+         */
+        public long links()
+        {
+            return links.get();
+        }
+
+        /**
+         * @return the number of files that could not be processed.
+         */
+        public long failures()
+        {
+            return failures.get();
+        }
+    }
+
+    /**
+     * Runs the utility. See the class documentation for usage.
+     *
+     * @param args The command-line arguments.
+     * @throws Exception when the links cannot be extracted.
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        Path root = null;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++)
+        {
+            if ("-o".equals(args[i]) && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else if ("-t".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                    break;
+                }
+            } else if (root == null && !args[i].startsWith("-")) {
+                root = Paths.get(args[i]);
+            } else {
+                root = null;
+                break;
+            }
+        }
+
+        if (root == null || threads < 1) {
+            System.err.println("Usage: java -jar linkdetector.jar <directory> [-o <output file>] [-t <threads>]");
+            System.exit(2);
+            return;
+        }
+        if (!Files.isDirectory(root) || !Files.isReadable(root)) {
+            System.err.println("Not a readable directory: " + root);
+            System.exit(2);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final Summary summary;
+        // Writing to the file descriptor directly, rather than through System.out, causes write errors to be reported.
+        try (final Writer out = output == null
+            ? new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16)
+            : Files.newBufferedWriter(output, StandardCharsets.UTF_8))
+        {
+            summary = extract(root, out, threads, output);
+        }
+        final double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+
+        System.err.println(String.format("Processed %d files (%d failed), %d bytes, %d links in %.2f s: %.2f MB/s, %.1f files/s, %.1f links/s",
+            summary.files(), summary.failures(), summary.bytes(), summary.links(), seconds,
+            summary.bytes() / (1024.0 * 1024.0) / seconds, summary.files() / seconds, summary.links() / seconds));
+
+        if (summary.failures() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Extracts all links from all regular files in a directory tree, writing one line of JSON for each link to the
+     * provided writer.
+     *
+     * The order in which records of different files are written is undefined. Records of a file that could not be
+     * processed completely may have been written.
+     *
+     * @param root The directory to process.
+     * @param out The destination of the records.
+     * @param threads The number of worker threads.
+     * @return counters that describe the work that was performed.
+     * @throws IOException when the directory tree cannot be walked.
+     * @throws InterruptedException when interrupted while waiting for the workers to finish.
+     */
+    public static Summary extract(final Path root, final Writer out, final int threads) throws IOException, InterruptedException
+    {
+        return extract(root, out, threads, null);
+    }
+
+    /**
+     * Extracts all links from all regular files in a directory tree, except for one, writing one line of JSON for each
+     * link to the provided writer.
+     *
+     * The excluded file typically is the file that the records are written to, which should not be processed when it
+     * is part of the directory tree.
+     *
+     * @param root The directory to process.
+     * @param out The destination of the records.
+     * @param threads The number of worker threads.
+     * @param exclude A file that is not to be processed (can be null).
+     * @return counters that describe the work that was performed.
+     * @throws IOException when the directory tree cannot be walked.
+     * @throws InterruptedException when interrupted while waiting for the workers to finish.
+     */
+    public static Summary extract(final Path root, final Writer out, final int threads, final Path exclude) throws IOException, InterruptedException
+    {
+        if (root == null) {
+            throw new IllegalArgumentException("Argument 'root' cannot be null (but was).");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Argument 'out' cannot be null (but was).");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Argument 'threads' must be a positive number (but was not): " + threads);
+        }
+
+        final Summary summary = new Summary();
+
+        // A bounded queue keeps the directory walk from running far ahead of the workers. When the queue is full, the
+        // walking thread processes the file itself.
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                return new Worker();
+            }
+        };
+
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile() && !isExcluded(file)) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                workers.get().process(file, out, summary);
+                            }
+                        });
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private boolean isExcluded(final Path file) throws IOException {
+                    return exclude != null && Files.exists(exclude) && file.getFileName().equals(exclude.getFileName()) && Files.isSameFile(file, exclude);
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                    summary.failures.incrementAndGet();
+                    System.err.println("Unable to read " + file + ": " + e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized (out) {
+            out.flush();
+        }
+        return summary;
+    }
+
+    /**
+     * Per-thread state, holding buffers that are reused for every file processed by that thread.
+     *
+     * Files are not read into memory in their entirety. Instead, they are decoded into a window of fixed size, which is
+     * scanned for links up to the last character that cannot be part of a link. The remainder is carried over to the
+     * next window. As a result, memory usage does not depend on the size of the files that are processed.
+     */
+    static class Worker
+    {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(WINDOW_SIZE);
+        private final StringBuilder records = new StringBuilder();
+
+        void process(final Path file, final Writer out, final Summary summary)
+        {
+            try {
+                final long[] counts = scan(file, out);
+                summary.bytes.addAndGet(counts[0]);
+                summary.links.addAndGet(counts[1]);
+                summary.files.incrementAndGet();
+            } catch (IOException | RuntimeException | Error e) {
+                summary.failures.incrementAndGet();
+                System.err.println("Unable to process " + file + ": " + e);
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+            } finally {
+                if (records.capacity() > MAX_RECORDS_SIZE) {
+                    records.setLength(0);
+                    records.trimToSize();
+                }
+            }
+        }
+
+        /**
+         * Writes a record for every link in a file.
+         *
+         * @return the number of bytes read, and the number of links found.
+         */
+        private long[] scan(final Path file, final Writer out) throws IOException
+        {
+            final String name = escape(file.toString());
+            long byteCount = 0;
+            long linkCount = 0;
+
+            // The offset, in the file, of the first character in the window.
+            long offset = 0;
+            // The index in the window from where to scan for links. Characters before it provide context only.
+            int scanFrom = 0;
+
+            bytes.clear();
+            chars.clear();
+            decoder.reset();
+            records.setLength(0);
+
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                boolean endOfInput = false;
+                while (true)
+                {
+                    if (!endOfInput && bytes.hasRemaining()) {
+                        final int read = channel.read(bytes);
+                        if (read < 0) {
+                            endOfInput = true;
+                        } else {
+                            byteCount += read;
+                        }
+                    }
+
+                    bytes.flip();
+                    CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                    boolean done = false;
+                    if (result.isUnderflow() && endOfInput) {
+                        result = decoder.flush(chars);
+                        done = result.isUnderflow();
+                    }
+                    bytes.compact();
+
+                    // Keep filling the window, unless it is full, or there is nothing left to fill it with. Note that
+                    // the window is full when a surrogate pair does not fit in the one character that is left.
+                    if (!done && !result.isOverflow() && chars.hasRemaining()) {
+                        continue;
+                    }
+
+                    chars.flip();
+                    final int scanTo = done ? chars.limit() : settled(chars);
+                    final Matcher matcher = LinkDetector.pattern.matcher(chars);
+                    matcher.useTransparentBounds(true);
+                    matcher.region(scanFrom, scanTo);
+                    while (matcher.find())
+                    {
+                        records.append("{\"file\":\"").append(name)
+                            .append("\",\"offset\":").append(offset + matcher.start())
+                            .append(",\"url\":\"").append(escape(matcher.group()))
+                            .append("\"}\n");
+                        linkCount++;
+                    }
+
+                    if (done || records.length() > MAX_RECORDS_SIZE) {
+                        synchronized (out) {
+                            out.append(records);
+                        }
+                        records.setLength(0);
+                    }
+                    if (done) {
+                        return new long[] { byteCount, linkCount };
+                    }
+
+                    // Carry over the unscanned remainder, preceded by one character that determines if a link can
+                    // start at the first unscanned character.
+                    final int keepFrom = scanTo - 1;
+                    chars.position(keepFrom);
+                    chars.compact();
+                    offset += keepFrom;
+                    scanFrom = 1;
+                }
+            }
+        }
+
+        /**
+         * Determines up to where the window can be scanned, without the risk of missing or truncating links that
+         * continue beyond the end of the window: just after the last character that cannot be part of a link.
+         *
+         * The character before that position is carried over to the next window, where it determines if a link can
+         * start at its first character. Low surrogates and non-spacing marks are skipped, as for those, the regular
+         * expression looks further back than that one character.
+         *
+         * When there is no such character in the last {@link #MAX_RUN_LENGTH} characters of the window, the window
+         * is scanned up to that many characters from its end.
+         */
+        private static int settled(final CharBuffer window)
+        {
+            final int lowerBound = window.limit() - MAX_RUN_LENGTH;
+            for (int i = window.limit() - 1; i >= lowerBound; i--)
+            {
+                final char c = window.get(i);
+                if (!isLinkCharacter(c) && !Character.isLowSurrogate(c) && Character.getType(c) != Character.NON_SPACING_MARK) {
+                    return i + 1;
+                }
+            }
+            return lowerBound;
+        }
+
+        private static boolean isLinkCharacter(final char c)
+        {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-+&@#/%?=~_|!:,.;()".indexOf(c) >= 0;
+        }
+    }
+
+    /**
+     * Escapes a value for use in a JSON string.
+     */
+    static String escape(final String value)
+    {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            final String replacement;
+            switch (c) {
+                case '"':  replacement = "\\\""; break;
+                case '\\': replacement = "\\\\"; break;
+                case '\n': replacement = "\\n"; break;
+                case '\r': replacement = "\\r"; break;
+                case '\t': replacement = "\\t"; break;
+                default:
+                    replacement = c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            }
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+}
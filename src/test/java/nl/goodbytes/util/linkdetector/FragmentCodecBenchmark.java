@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.goodbytes.util.linkdetector;
+
+import java.util.List;
+
+/**
+ * A rudimentary benchmark that compares the cost of restoring fragments with {@link FragmentCodec} against that of
+ * parsing the text again with {@link LinkDetector}.
+ *
+ * This is not part of the test suite. Run it from the test classpath, for example:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=nl.goodbytes.util.linkdetector.FragmentCodecBenchmark -Dexec.classpathScope=test
+ * </pre>
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class FragmentCodecBenchmark
+{
+    private static final String[] MESSAGES = {
+        "foobar",
+        "Foo https://www.example.org bar",
+        "Please visit https://www.example.org and https://example.com at your convenience.",
+        "Please find more information in the corresponding page on Wikipedia "
+            + "(https://en.wikipedia.org/wiki/Ambiguity_(disambiguation)). Let me know if you have questions!",
+        "No links in here, just a reasonably long chat message that talks about things, and more things, "
+            + "and then some (other) things; followed by a few words that do not amount to much at all.",
+    };
+
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int MEASURED_ROUNDS = 1_000_000;
+
+    public static void main(final String[] args)
+    {
+        final byte[][] encoded = new byte[MESSAGES.length][];
+        int encodedBytes = 0;
+        int inputChars = 0;
+        for (int i = 0; i < MESSAGES.length; i++) {
+            encoded[i] = FragmentCodec.encode(MESSAGES[i]);
+            encodedBytes += encoded[i].length;
+            inputChars += MESSAGES[i].length();
+        }
+        System.out.println("Encoded " + inputChars + " characters of text into " + encodedBytes + " bytes.");
+
+        runParse(WARMUP_ROUNDS);
+        runDecode(encoded, WARMUP_ROUNDS);
+
+        long start = System.nanoTime();
+        long sink = runParse(MEASURED_ROUNDS);
+        final long parseNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        sink += runDecode(encoded, MEASURED_ROUNDS);
+        final long decodeNanos = System.nanoTime() - start;
+
+        final long operations = (long) MEASURED_ROUNDS * MESSAGES.length;
+        System.out.println("parse:  " + (parseNanos / operations) + " ns/message");
+        System.out.println("decode: " + (decodeNanos / operations) + " ns/message");
+        System.out.println("(" + sink + ")");
+    }
+
+    private static long runParse(final int rounds)
+    {
+        long sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (final String message : MESSAGES) {
+                final List<Fragment> fragments = LinkDetector.parse(message);
+                sink += fragments.size();
+            }
+        }
+        return sink;
+    }
+
+    private static long runDecode(final byte[][] encoded, final int rounds)
+    {
+        long sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < MESSAGES.length; i++) {
+                final List<Fragment> fragments = FragmentCodec.decode(encoded[i], MESSAGES[i]);
+                sink += fragments.size();
+            }
+        }
+        return sink;
+    }
+}
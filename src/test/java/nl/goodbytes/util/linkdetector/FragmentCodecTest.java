@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.goodbytes.util.linkdetector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.TestCase.*;
+
+/**
+ * Unit tests that verify the implementation of {@link FragmentCodec}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class FragmentCodecTest
+{
+    /**
+     * Asserts that decoding the encoded form of an input yields the same fragments as parsing that input does.
+     */
+    private static void assertRoundTrip(final String input)
+    {
+        final List<Fragment> expected = LinkDetector.parse(input);
+        final List<Fragment> actual = FragmentCodec.decode(FragmentCodec.encode(input), input);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).startIndex(), actual.get(i).startIndex());
+            assertEquals(expected.get(i).endIndex(), actual.get(i).endIndex());
+            assertEquals(expected.get(i).isLink(), actual.get(i).isLink());
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "";
+
+        // Execute system under test.
+        final byte[] encoded = FragmentCodec.encode(input);
+
+        // Verify results.
+        assertEquals(3, encoded.length);
+        assertEquals(FragmentCodec.VERSION, encoded[0]);
+        assertEquals(0, FragmentCodec.decode(encoded, input).size());
+    }
+
+    @Test
+    public void testText() throws Exception
+    {
+        assertRoundTrip("foobar");
+    }
+
+    @Test
+    public void testLink() throws Exception
+    {
+        assertRoundTrip("https://www.example.org");
+    }
+
+    @Test
+    public void testEmbeddedLink() throws Exception
+    {
+        assertRoundTrip("Foo (https://www.example.org/foo_(bar)) bar");
+    }
+
+    @Test
+    public void testMultipleLinksInLongerText() throws Exception
+    {
+        assertRoundTrip("Please visit https://www.example.org and https://example.com at your convenience.");
+    }
+
+    @Test
+    public void testLargeOffsets() throws Exception
+    {
+        // Setup test fixture.
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("lorem ipsum ");
+        }
+        sb.append("https://www.example.org/").append(sb).append(" https://example.com");
+
+        // Execute system under test & verify results.
+        assertRoundTrip(sb.toString());
+    }
+
+    @Test
+    public void testEncodedSize() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "Foo https://www.example.org bar";
+
+        // Execute system under test.
+        final byte[] encoded = FragmentCodec.encode(input);
+
+        // Verify results: version, length, link count, link offset, link length.
+        assertEquals(5, encoded.length);
+        assertEquals(input.length(), FragmentCodec.length(encoded));
+    }
+
+    @Test
+    public void testCallback() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "https://www.example.org bar https://example.com";
+        final byte[] encoded = FragmentCodec.encode(input);
+        final List<String> events = new ArrayList<>();
+
+        // Execute system under test.
+        FragmentCodec.decode(encoded, new FragmentCodec.Callback() {
+            @Override
+            public void onText(final int start, final int end) {
+                events.add("text " + start + "-" + end);
+            }
+
+            @Override
+            public void onLink(final int start, final int end) {
+                events.add("link " + start + "-" + end);
+            }
+        });
+
+        // Verify results.
+        assertEquals(3, events.size());
+        assertEquals("link 0-23", events.get(0));
+        assertEquals("text 23-28", events.get(1));
+        assertEquals("link 28-47", events.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "Foo https://www.example.org bar";
+        final byte[] encoded = FragmentCodec.encode(input);
+        encoded[0] = FragmentCodec.VERSION + 1;
+
+        // Execute system under test.
+        FragmentCodec.decode(encoded, input);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "Foo https://www.example.org bar";
+        final byte[] encoded = FragmentCodec.encode(input);
+        final byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+        // Execute system under test.
+        FragmentCodec.decode(truncated, input);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingBytes() throws Exception
+    {
+        // Setup test fixture.
+        final String input = "Foo https://www.example.org bar";
+        final byte[] encoded = FragmentCodec.encode(input);
+        final byte[] extended = new byte[encoded.length + 1];
+        System.arraycopy(encoded, 0, extended, 0, encoded.length);
+
+        // Execute system under test.
+        FragmentCodec.decode(extended, input);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOversizedNumber() throws Exception
+    {
+        // Setup test fixture: a length of 31, with bits set beyond those that fit in an int; no links.
+        final byte[] encoded = { FragmentCodec.VERSION, (byte) 0x9F, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10, 0x00 };
+
+        // Execute system under test.
+        FragmentCodec.decode(encoded, new String(new char[31]));
+    }
+
+    @Test
+    public void testLargestNumberInFifthByte() throws Exception
+    {
+        // Setup test fixture: the largest length that fits in an int, encoded in five bytes; no links.
+        final byte[] encoded = { FragmentCodec.VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x00 };
+
+        // Execute system under test.
+        final int length = FragmentCodec.length(encoded);
+
+        // Verify results.
+        assertEquals(Integer.MAX_VALUE, length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedInput() throws Exception
+    {
+        // Setup test fixture.
+        final byte[] encoded = FragmentCodec.encode("Foo https://www.example.org bar");
+
+        // Execute system under test.
+        FragmentCodec.decode(encoded, "Foo https://www.example.org");
+    }
+}
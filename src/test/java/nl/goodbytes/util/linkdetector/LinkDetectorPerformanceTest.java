@@ -0,0 +1,346 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.goodbytes.util.linkdetector;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.TestCase.*;
+
+/**
+ * Guards against performance regressions of {@link LinkDetector}, such as those caused by a change of its regular
+ * expression that introduces catastrophic backtracking.
+ *
+ * Worst-case inputs of increasing size are parsed, asserting that both the time spent and the number of bytes
+ * allocated grow (near) linearly with the size of the input. Time is measured as CPU time of the current thread, rather
+ * than wall-clock time, so that contention with other processes on the build machine does not skew the results. The
+ * budgets are generous, to prevent false positives on slow build machines, but an algorithm that is quadratic (or
+ * worse) in the size of its input exceeds them by far.
+ *
+ * A randomized component generates inputs from fragments that are known to be troublesome for the regular
+ * expression. Every input is derived from a seed. The seeds of inputs that exceed the budget are reported (and written
+ * to {@value #FAILED_SEEDS_FILE}), so that they can be reproduced by running this test with the
+ * {@value #SEED_PROPERTY} system property set to that seed.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LinkDetectorPerformanceTest
+{
+    /**
+     * The number of characters in the smallest input of every scaling test.
+     */
+    private static final int SMALL = 5_000;
+
+    /**
+     * The factor by which the largest input of every scaling test is larger than the smallest. Must be a power of two.
+     */
+    private static final int GROWTH = 32;
+
+    /**
+     * The maximum factor by which the time spent per character is allowed to increase from the smallest to the largest
+     * input. Linear behavior yields a factor of about one, quadratic behavior a factor of about {@link #GROWTH}.
+     */
+    private static final double MAX_TIME_PER_CHAR_INCREASE = 6.0;
+
+    /**
+     * The maximum (CPU) time that parsing is allowed to take, per character of input.
+     */
+    private static final long MAX_NANOS_PER_CHAR = 2_000;
+
+    /**
+     * The maximum number of bytes that parsing is allowed to allocate, per character of input.
+     */
+    private static final long MAX_BYTES_PER_CHAR = 64;
+
+    /**
+     * The number of bytes that parsing is allowed to allocate regardless of the size of the input.
+     */
+    private static final long BASE_BYTES = 16 * 1024;
+
+    /**
+     * The number of failing inputs after which the randomized test stops looking for more.
+     */
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private static final String SEED_PROPERTY = "linkdetector.fuzz.seed";
+    private static final String ITERATIONS_PROPERTY = "linkdetector.fuzz.iterations";
+    private static final String FAILED_SEEDS_FILE = "target/linkdetector-fuzz-failures.txt";
+
+    /**
+     * Building blocks for randomized input, chosen to exercise the (backtracking) parts of the regular expression.
+     */
+    private static final String[] TOKENS = {
+        "http://", "https://", "ftp://", "(", ")", "a", "a(", "(a)", ",", ".", ";", ",.;", "?", "!", ":", "/", "_",
+        "=", "&", "#", " ", "\n", "é",
+    };
+
+    /**
+     * Exponential backtracking does not finish in any reasonable amount of time. Fail, rather than hang, the build.
+     */
+    @Rule
+    public Timeout timeout = Timeout.seconds(60);
+
+    @BeforeClass
+    public static void warmUp()
+    {
+        // Give the JIT compiler a chance to compile the code paths under test, to reduce the noise in timing.
+        final Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            LinkDetector.parse(generate(random, 2_000));
+        }
+    }
+
+    @Test
+    public void testOpeningParentheses() throws Exception
+    {
+        assertLinearScaling("", "(");
+    }
+
+    @Test
+    public void testTextWithOpeningParentheses() throws Exception
+    {
+        assertLinearScaling("", "a(");
+    }
+
+    @Test
+    public void testPunctuation() throws Exception
+    {
+        assertLinearScaling("", ",.;");
+    }
+
+    @Test
+    public void testLinkWithOpeningParentheses() throws Exception
+    {
+        assertLinearScaling("http://", "(");
+    }
+
+    @Test
+    public void testLinkWithTextWithOpeningParentheses() throws Exception
+    {
+        assertLinearScaling("http://", "a(");
+    }
+
+    @Test
+    public void testLinkWithPunctuation() throws Exception
+    {
+        assertLinearScaling("http://", ",.;");
+    }
+
+    @Test
+    public void testLinkWithNestedParentheses() throws Exception
+    {
+        assertLinearScaling("http://", "(a", ")");
+    }
+
+    @Test
+    public void testRepeatedLinksWithPunctuation() throws Exception
+    {
+        assertLinearScaling("", "http://a,.;(");
+    }
+
+    @Test
+    public void testFuzz() throws Exception
+    {
+        final String seedProperty = System.getProperty(SEED_PROPERTY);
+        final List<Long> seeds = new ArrayList<>();
+        if (seedProperty != null) {
+            seeds.add(Long.parseLong(seedProperty));
+        } else {
+            final int iterations = Integer.getInteger(ITERATIONS_PROPERTY, 1_000);
+            for (long seed = 1; seed <= iterations; seed++) {
+                seeds.add(seed);
+            }
+        }
+
+        final List<String> failures = new ArrayList<>();
+        for (final long seed : seeds)
+        {
+            final String input = generate(seed);
+            final long budget = MAX_NANOS_PER_CHAR * input.length();
+            if (measureNanos(input, 1) > budget) {
+                // Measure again to rule out a hiccup of the machine that runs the test.
+                final long nanos = measureNanos(input, 3);
+                if (nanos > budget) {
+                    failures.add("seed " + seed + ": " + input.length() + " characters took " + nanos + " ns (budget: " + budget + " ns)");
+                    if (failures.size() >= MAX_REPORTED_FAILURES) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            record(failures);
+        }
+        assertTrue("Inputs exceeded the time budget. Reproduce with -D" + SEED_PROPERTY + "=<seed>. " + failures, failures.isEmpty());
+    }
+
+    /**
+     * Asserts that parsing inputs that consist of a prefix, followed by a number of repetitions of a unit, scales
+     * (near) linearly with the number of repetitions, both in time and in allocated memory.
+     */
+    private static void assertLinearScaling(final String prefix, final String unit)
+    {
+        assertLinearScaling(prefix, unit, "");
+    }
+
+    /**
+     * Asserts that parsing inputs that consist of a prefix, a number of repetitions of a unit, and the same number of
+     * repetitions of a closing unit scales (near) linearly with the number of repetitions, both in time and in
+     * allocated memory.
+     *
+     * The size of the input is doubled until it is {@link #GROWTH} times as large as the smallest input, failing as
+     * soon as a budget is exceeded, so that a pathological input does not keep the build busy for long.
+     */
+    private static void assertLinearScaling(final String prefix, final String unit, final String closingUnit)
+    {
+        double smallestNanosPerChar = -1;
+        for (int size = SMALL; size <= SMALL * GROWTH; size *= 2)
+        {
+            final String input = repeat(prefix, unit, closingUnit, size / (unit.length() + closingUnit.length()));
+
+            final double nanosPerChar = (double) measureNanos(input, 5) / input.length();
+            assertTrue("Parsing " + input.length() + " characters took " + nanosPerChar + " ns per character (budget: " + MAX_NANOS_PER_CHAR + " ns)",
+                nanosPerChar <= MAX_NANOS_PER_CHAR);
+
+            if (smallestNanosPerChar < 0) {
+                // Very small values are dominated by timer resolution. Do not let those tighten the budget.
+                smallestNanosPerChar = Math.max(nanosPerChar, 10);
+            } else {
+                assertTrue("Time per character grew from " + smallestNanosPerChar + " ns to " + nanosPerChar + " ns when the input grew " + (size / SMALL) + " times larger.",
+                    nanosPerChar <= smallestNanosPerChar * MAX_TIME_PER_CHAR_INCREASE);
+            }
+
+            final long allocated = measureAllocatedBytes(input);
+            final long allocationBudget = BASE_BYTES + MAX_BYTES_PER_CHAR * input.length();
+            assertTrue("Parsing " + input.length() + " characters allocated " + allocated + " bytes (budget: " + allocationBudget + " bytes)",
+                allocated <= allocationBudget);
+        }
+    }
+
+    /**
+     * Returns the shortest CPU time (in nanoseconds) of a number of invocations of {@link LinkDetector#parse(String)}.
+     * Stops early when an invocation exceeds the time budget, as repeating that is unlikely to be useful. Skips the
+     * calling test when the JVM does not support measuring CPU time.
+     */
+    private static long measureNanos(final String input, final int attempts)
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("This JVM cannot measure CPU time.", bean.isCurrentThreadCpuTimeSupported());
+        if (!bean.isThreadCpuTimeEnabled()) {
+            bean.setThreadCpuTimeEnabled(true);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < attempts; i++) {
+            final long start = bean.getCurrentThreadCpuTime();
+            LinkDetector.parse(input);
+            final long nanos = bean.getCurrentThreadCpuTime() - start;
+            best = Math.min(best, nanos);
+            if (nanos > MAX_NANOS_PER_CHAR * input.length()) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of bytes that are allocated by an invocation of {@link LinkDetector#parse(String)}. Skips the
+     * calling test when the JVM does not support measuring this.
+     */
+    private static long measureAllocatedBytes(final String input)
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("This JVM cannot measure allocated bytes.", bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue("This JVM cannot measure allocated bytes.", threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        final long threadId = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            final long before = threadBean.getThreadAllocatedBytes(threadId);
+            LinkDetector.parse(input);
+            best = Math.min(best, threadBean.getThreadAllocatedBytes(threadId) - before);
+        }
+        return best;
+    }
+
+    private static String repeat(final String prefix, final String unit, final String closingUnit, final int count)
+    {
+        final StringBuilder sb = new StringBuilder(prefix.length() + (unit.length() + closingUnit.length()) * count);
+        sb.append(prefix);
+        for (int i = 0; i < count; i++) {
+            sb.append(unit);
+        }
+        for (int i = 0; i < count; i++) {
+            sb.append(closingUnit);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates the input that is identified by a seed.
+     */
+    private static String generate(final long seed)
+    {
+        final Random random = new Random(seed);
+        return generate(random, 1_000 + random.nextInt(20_000));
+    }
+
+    private static String generate(final Random random, final int length)
+    {
+        // Favour few distinct tokens per input, as long runs of the same construct are more likely to trigger
+        // pathological behavior than an even mix.
+        final String[] alphabet = new String[1 + random.nextInt(4)];
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabet[i] = TOKENS[random.nextInt(TOKENS.length)];
+        }
+
+        // Half of the inputs start with a link, so that the remainder is parsed as (a potential) part of that link.
+        final StringBuilder sb = new StringBuilder(length + 16);
+        if (random.nextBoolean()) {
+            sb.append(random.nextBoolean() ? "http://" : "ftp://");
+        }
+        while (sb.length() < length) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void record(final List<String> failures) throws IOException
+    {
+        final Path path = Paths.get(FAILED_SEEDS_FILE);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, failures, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
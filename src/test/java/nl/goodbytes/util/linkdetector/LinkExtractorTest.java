@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 Guus der Kinderen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nl.goodbytes.util.linkdetector;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.TestCase.*;
+
+/**
+ * Unit tests that verify the implementation of {@link LinkExtractor}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LinkExtractorTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEmptyDirectory() throws Exception
+    {
+        // Setup test fixture.
+        final StringWriter out = new StringWriter();
+
+        // Execute system under test.
+        final LinkExtractor.Summary summary = LinkExtractor.extract(folder.getRoot().toPath(), out, 2);
+
+        // Verify results.
+        assertEquals(0, summary.files());
+        assertEquals(0, summary.links());
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void testLinks() throws Exception
+    {
+        // Setup test fixture.
+        final File file = folder.newFile("chat.txt");
+        Files.write(file.toPath(), "Foo (https://www.example.org/foo_(bar)) bar\nand https://example.com, too".getBytes(StandardCharsets.UTF_8));
+        final StringWriter out = new StringWriter();
+
+        // Execute system under test.
+        final LinkExtractor.Summary summary = LinkExtractor.extract(folder.getRoot().toPath(), out, 2);
+
+        // Verify results.
+        final String name = LinkExtractor.escape(file.getPath());
+        final List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertEquals(1, summary.files());
+        assertEquals(2, summary.links());
+        assertEquals(2, lines.size());
+        assertEquals("{\"file\":\"" + name + "\",\"offset\":5,\"url\":\"https://www.example.org/foo_(bar)\"}", lines.get(0));
+        assertEquals("{\"file\":\"" + name + "\",\"offset\":48,\"url\":\"https://example.com\"}", lines.get(1));
+    }
+
+    @Test
+    public void testManyFiles() throws Exception
+    {
+        // Setup test fixture.
+        final File directory = folder.newFolder("nested", "deeper");
+        for (int i = 0; i < 100; i++) {
+            Files.write(new File(directory, i + ".txt").toPath(), ("Visit https://example.org/" + i + " now").getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(folder.newFile("empty.txt").toPath(), new byte[0]);
+        final StringWriter out = new StringWriter();
+
+        // Execute system under test.
+        final LinkExtractor.Summary summary = LinkExtractor.extract(folder.getRoot().toPath(), out, 3);
+
+        // Verify results.
+        assertEquals(101, summary.files());
+        assertEquals(100, summary.links());
+        assertEquals(0, summary.failures());
+        assertEquals(100, out.toString().split("\n").length);
+    }
+
+    @Test
+    public void testMalformedInput() throws Exception
+    {
+        // Setup test fixture.
+        final byte[] link = "https://example.org".getBytes(StandardCharsets.UTF_8);
+        final byte[] content = new byte[link.length + 2];
+        content[0] = (byte) 0xC3; // Incomplete multi-byte sequence.
+        content[1] = ' ';
+        System.arraycopy(link, 0, content, 2, link.length);
+        Files.write(folder.newFile("binary.bin").toPath(), content);
+        final StringWriter out = new StringWriter();
+
+        // Execute system under test.
+        final LinkExtractor.Summary summary = LinkExtractor.extract(folder.getRoot().toPath(), out, 1);
+
+        // Verify results.
+        assertEquals(1, summary.links());
+        assertTrue(out.toString().contains("\"offset\":2,\"url\":\"https://example.org\""));
+    }
+
+    /**
+     * Asserts that the links extracted from a file with the provided content are those found by
+     * {@link LinkDetector#parse(String)}.
+     */
+    private void assertSameAsParse(final String content) throws Exception
+    {
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        final StringWriter out = new StringWriter();
+
+        final LinkExtractor.Summary summary = LinkExtractor.extract(file.getParentFile().toPath(), out, 1);
+
+        final StringBuilder expected = new StringBuilder();
+        long expectedLinks = 0;
+        for (final Fragment fragment : LinkDetector.parse(content)) {
+            if (fragment.isLink()) {
+                expected.append("\"offset\":").append(fragment.startIndex()).append(",\"url\":\"").append(fragment).append("\"}\n");
+                expectedLinks++;
+            }
+        }
+        assertEquals(0, summary.failures());
+        assertEquals(expectedLinks, summary.links());
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, summary.bytes());
+        assertEquals(expected.toString(), out.toString().replaceAll("\\{\"file\":\"[^\"]*\",", ""));
+        assertTrue(file.delete());
+    }
+
+    private static String repeat(final char c, final int count)
+    {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    @Test
+    public void testLinksAcrossWindows() throws Exception
+    {
+        // Setup test fixture: text that spans several windows, with links and (multi-byte, supplementary and
+        // combining) characters all over.
+        final String[] words = { "caf\u00e9", "cafe\u0301", "\ud83d\ude00", "\ud835\udc00", "\u4e2d\u6587" };
+        final StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (sb.length() < LinkExtractor.WINDOW_SIZE * 3) {
+            sb.append(words[i % words.length]).append(" (https://example.org/page_(").append(i++).append("))");
+            sb.append(words[i % words.length]).append("https://example.org/").append(i);
+            for (int j = 0; j < i % 97; j++) {
+                sb.append(j % 7 == 0 ? " " : "x");
+            }
+        }
+
+        // Execute system under test & verify results.
+        assertSameAsParse(sb.toString());
+    }
+
+    @Test(timeout = 30_000)
+    public void testSupplementaryCharacterAtEndOfWindow() throws Exception
+    {
+        // A surrogate pair does not fit in the last free character of a window.
+        assertSameAsParse(repeat('x', LinkExtractor.WINDOW_SIZE - 1) + "\ud83d\ude00 https://example.org");
+        assertSameAsParse(repeat(' ', LinkExtractor.WINDOW_SIZE - 1) + "\ud83d\ude00 https://example.org");
+    }
+
+    @Test(timeout = 30_000)
+    public void testWordBoundaryAtEndOfWindow() throws Exception
+    {
+        // Characters that precede a link determine if it is one. Some of those span more than one char.
+        final String[] precedingCharacters = { "e\u0301", "e\u0301\u0301", "\ud835\udc00", "\ud835\udc00\u0301", "\ud83d\ude00", "\u00e9", " ", "(" };
+        final String link = "http://example.org/" + repeat('a', 40) + " end";
+        for (final String preceding : precedingCharacters) {
+            for (int shift = -24; shift <= 4; shift++) {
+                assertSameAsParse(repeat(' ', LinkExtractor.WINDOW_SIZE + shift - preceding.length()) + preceding + link);
+            }
+        }
+    }
+
+    @Test
+    public void testExcludedFile() throws Exception
+    {
+        // Setup test fixture.
+        Files.write(folder.newFile("chat.txt").toPath(), "https://example.org".getBytes(StandardCharsets.UTF_8));
+        final File output = folder.newFile("links.jsonl");
+        Files.write(output.toPath(), "{\"url\":\"https://example.com\"}".getBytes(StandardCharsets.UTF_8));
+        final StringWriter out = new StringWriter();
+
+        // Execute system under test.
+        final LinkExtractor.Summary summary = LinkExtractor.extract(folder.getRoot().toPath(), out, 1, output.toPath());
+
+        // Verify results.
+        assertEquals(1, summary.files());
+        assertEquals(1, summary.links());
+        assertFalse(out.toString().contains("https://example.com"));
+    }
+
+    @Test
+    public void testEscape() throws Exception
+    {
+        assertEquals("foo", LinkExtractor.escape("foo"));
+        assertEquals("a\\\"b\\\\c\\nd\\u0001", LinkExtractor.escape("a\"b\\c\nd\u0001"));
+    }
+}